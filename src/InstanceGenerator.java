@@ -0,0 +1,76 @@
+import java.util.*;
+
+/**
+ * Generates reproducible random instances of the bridge crossing problem.
+ * The same seed, family size and distribution always give the same crossing times.
+ */
+public class InstanceGenerator {
+
+    // Supported distributions of crossing times
+    public static final String[] DISTRIBUTIONS = {"uniform", "skewed", "clustered"};
+
+    private long seed;
+
+    /**
+     * Constructor for creating a generator with a given seed.
+     *
+     * @param seed Seed of the random crossing times.
+     */
+    public InstanceGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the seed used for one instance, so that each instance can be regenerated on its own.
+     *
+     * @param n            Number of family members.
+     * @param distribution Distribution of the crossing times.
+     * @return The seed of the instance.
+     */
+    public long instanceSeed(int n, String distribution) {
+        return Objects.hash(seed, n, distribution);
+    }
+
+    /**
+     * Generates the family members of an instance.
+     *
+     * @param n            Number of family members.
+     * @param distribution Distribution of the crossing times: uniform, skewed or clustered.
+     * @return Map of family members, keyed like the one built in Main.
+     */
+    public HashMap<Integer, FamilyMember> generate(int n, String distribution) {
+        Random random = new Random(instanceSeed(n, distribution));
+
+        // Restart IDs at 1 for every instance, since the hash code of a State is built from them
+        FamilyMember.counter = 1;
+
+        HashMap<Integer, FamilyMember> familyMembers = new HashMap<Integer, FamilyMember>();
+        for (int i = 0; i < n; i++) {
+            familyMembers.put(i, new FamilyMember(crossingTime(random, distribution)));
+        }
+        return familyMembers;
+    }
+
+    /**
+     * Draws a crossing time from the given distribution.
+     *
+     * @param random       Source of randomness.
+     * @param distribution Distribution of the crossing times.
+     * @return A crossing time of at least 1.
+     */
+    private int crossingTime(Random random, String distribution) {
+        switch (distribution) {
+            case "uniform":
+                // Any time between 1 and 100
+                return 1 + random.nextInt(100);
+            case "skewed":
+                // Mostly fast members with a few very slow ones
+                return 1 + (int) (-10 * Math.log(1 - random.nextDouble()));
+            case "clustered":
+                // Times close to each other around 50
+                return Math.max(1, (int) Math.round(50 + 3 * random.nextGaussian()));
+            default:
+                throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        }
+    }
+}
@@ -9,6 +9,17 @@ public class Main {
         // Set the heuristic to be used in the search
         int heuristic = 1;
 
+        // Set to true to list every optimal schedule instead of the first one found
+        boolean allSolutions = false;
+
+        // Set to true to keep the search nodes in off-heap records instead of State objects
+        boolean offHeap = false;
+
+        // Listing every optimal schedule needs State objects, so it always runs on the heap
+        if (allSolutions && offHeap) {
+            throw new IllegalArgumentException("allSolutions and offHeap cannot be combined");
+        }
+
         // Create a HashMap to represent family members with their respective crossing times
         HashMap<Integer, FamilyMember> familyMembers = new HashMap<Integer, FamilyMember>();
         familyMembers.put(0, new FamilyMember(1));
@@ -21,7 +32,13 @@ public class Main {
         State initialState = new State(familyMembers, heuristic);
 
         // Create a search object and perform A* search to find the solution
-        Search searcher = new Search();
-        searcher.AStarSearch(initialState, heuristic);
+        Search searcher = offHeap ? new OffHeapSearch() : new Search();
+        if (allSolutions) {
+            for (State schedule : searcher.AStarSearchAll(initialState, heuristic)) {
+                searcher.printPathFollowed(schedule);
+            }
+        } else {
+            searcher.AStarSearch(initialState, heuristic);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,308 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+/**
+ * Stores search nodes as fixed-width records in direct (off-heap) buffers, so that large searches
+ * do not create one object per node.
+ * Alongside the records it keeps the frontier as a binary heap of record indices and the closed set
+ * as an open addressing table of state keys, both off-heap as well.
+ *
+ * Record layout (24 bytes): state key (long), g (int), f (int), parent index (int),
+ * move (short) and number of moves made so far (short).
+ */
+public class NodeStore {
+
+    // Record layout
+    private static final int RECORD_SIZE = 24;
+    private static final int KEY_OFFSET = 0;
+    private static final int G_OFFSET = 8;
+    private static final int F_OFFSET = 12;
+    private static final int PARENT_OFFSET = 16;
+    private static final int MOVE_OFFSET = 20;
+    private static final int DEPTH_OFFSET = 22;
+
+    // Marks occupied slots of the closed set, since a key of zero is a valid state
+    private static final long USED = 1L << 63;
+
+    /**
+     * An array of fixed-width elements split into direct buffers of at most CHUNK_ELEMENTS elements,
+     * since a single buffer cannot exceed 2 GB. The first chunk starts small and doubles until it is
+     * full size, so small searches do not pay for a whole chunk.
+     */
+    private static class DirectArray {
+        private static final int CHUNK_SHIFT = 20;
+        private static final int CHUNK_ELEMENTS = 1 << CHUNK_SHIFT;
+        private static final int CHUNK_MASK = CHUNK_ELEMENTS - 1;
+        private static final int INITIAL_ELEMENTS = 1024;
+
+        private final int elementSize;
+        private ArrayList<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+        private long capacity = 0;
+
+        private DirectArray(int elementSize, long capacity) {
+            this.elementSize = elementSize;
+            ensureCapacity(capacity);
+        }
+
+        /**
+         * Grows the array so that it holds at least the given number of elements.
+         *
+         * @param needed Number of elements the array must hold.
+         */
+        private void ensureCapacity(long needed) {
+            if (needed <= capacity) return;
+
+            // Double the first chunk, copying its contents, until it reaches full size
+            if (capacity < CHUNK_ELEMENTS) {
+                long size = Math.max(INITIAL_ELEMENTS, capacity);
+                while (size < needed && size < CHUNK_ELEMENTS) size *= 2;
+                ByteBuffer first = ByteBuffer.allocateDirect((int) size * elementSize).order(ByteOrder.nativeOrder());
+                if (!chunks.isEmpty()) {
+                    ByteBuffer old = chunks.get(0).duplicate();
+                    old.clear();
+                    first.put(old);
+                    first.clear();
+                    chunks.set(0, first);
+                } else {
+                    chunks.add(first);
+                }
+                capacity = size;
+            }
+
+            // Then add full chunks
+            while (capacity < needed) {
+                chunks.add(ByteBuffer.allocateDirect(CHUNK_ELEMENTS * elementSize).order(ByteOrder.nativeOrder()));
+                capacity += CHUNK_ELEMENTS;
+            }
+        }
+
+        private ByteBuffer chunk(long index) {
+            return chunks.get((int) (index >>> CHUNK_SHIFT));
+        }
+
+        private int offset(long index) {
+            return (int) (index & CHUNK_MASK) * elementSize;
+        }
+
+        private long getLong(long index) {
+            return chunk(index).getLong(offset(index));
+        }
+
+        private void putLong(long index, long value) {
+            chunk(index).putLong(offset(index), value);
+        }
+
+        private long bytes() {
+            return capacity * elementSize;
+        }
+    }
+
+    private DirectArray records = new DirectArray(RECORD_SIZE, 0);
+    private int size = 0;
+
+    // Frontier entries pack f in the high half and the record index in the low half
+    private DirectArray heap = new DirectArray(8, 0);
+    private int heapSize = 0;
+
+    // Open addressing table with a power of two number of slots
+    private DirectArray closed = new DirectArray(8, 0);
+    private long closedSize = 0;
+
+    // Largest number of bytes held by the buffers of the store at any time
+    private long peakBytes = 0;
+
+    /**
+     * Appends a new record to the store.
+     *
+     * @param key    Key identifying the configuration of the state.
+     * @param g      Cost of the path to the state.
+     * @param f      Evaluation function of the state.
+     * @param parent Index of the parent record, or -1 for the initial state.
+     * @param move   Encoded move that produced the state.
+     * @param depth  Number of moves made to reach the state.
+     * @return The index of the new record.
+     */
+    public int add(long key, int g, int f, int parent, int move, int depth) {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Node store is full: " + size + " records");
+        }
+        records.ensureCapacity((long) size + 1);
+        updatePeakBytes(0);
+
+        ByteBuffer chunk = records.chunk(size);
+        int base = records.offset(size);
+        chunk.putLong(base + KEY_OFFSET, key);
+        chunk.putInt(base + G_OFFSET, g);
+        chunk.putInt(base + F_OFFSET, f);
+        chunk.putInt(base + PARENT_OFFSET, parent);
+        chunk.putShort(base + MOVE_OFFSET, (short) move);
+        chunk.putShort(base + DEPTH_OFFSET, (short) depth);
+        return size++;
+    }
+
+    // Getter methods for the fields of a record
+
+    public long getKey(int index) {
+        return records.chunk(index).getLong(records.offset(index) + KEY_OFFSET);
+    }
+
+    public int getG(int index) {
+        return records.chunk(index).getInt(records.offset(index) + G_OFFSET);
+    }
+
+    public int getF(int index) {
+        return records.chunk(index).getInt(records.offset(index) + F_OFFSET);
+    }
+
+    public int getParent(int index) {
+        return records.chunk(index).getInt(records.offset(index) + PARENT_OFFSET);
+    }
+
+    public int getMove(int index) {
+        return records.chunk(index).getShort(records.offset(index) + MOVE_OFFSET) & 0xFFFF;
+    }
+
+    public int getDepth(int index) {
+        return records.chunk(index).getShort(records.offset(index) + DEPTH_OFFSET) & 0xFFFF;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int frontierSize() {
+        return heapSize;
+    }
+
+    public long getPeakBytes() {
+        return peakBytes;
+    }
+
+    /**
+     * Updates the peak number of bytes held by the buffers of the store.
+     *
+     * @param extra Bytes of buffers that are about to be released but are still held.
+     */
+    private void updatePeakBytes(long extra) {
+        peakBytes = Math.max(peakBytes, records.bytes() + heap.bytes() + closed.bytes() + extra);
+    }
+
+    /**
+     * Adds a record to the frontier.
+     *
+     * @param index Index of the record to add.
+     */
+    public void push(int index) {
+        if (heapSize == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Node store is full: " + heapSize + " frontier entries");
+        }
+        heap.ensureCapacity((long) heapSize + 1);
+        updatePeakBytes(0);
+
+        // Sift the new entry up to its place in the heap
+        long entry = ((long) getF(index) << 32) | index;
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            long parentEntry = heap.getLong(parent);
+            if (parentEntry <= entry) break;
+            heap.putLong(i, parentEntry);
+            i = parent;
+        }
+        heap.putLong(i, entry);
+    }
+
+    /**
+     * Removes the record with the lowest evaluation function from the frontier.
+     * Records with equal f are returned in the order they were added.
+     *
+     * @return The index of the removed record, or -1 if the frontier is empty.
+     */
+    public int pop() {
+        if (heapSize == 0) return -1;
+        int index = (int) heap.getLong(0);
+        long last = heap.getLong(--heapSize);
+
+        // Sift the last entry down from the root
+        int i = 0;
+        while (true) {
+            long child = 2L * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heap.getLong(child + 1) < heap.getLong(child)) child++;
+            if (heap.getLong(child) >= last) break;
+            heap.putLong(i, heap.getLong(child));
+            i = (int) child;
+        }
+        if (heapSize > 0) heap.putLong(i, last);
+        return index;
+    }
+
+    /**
+     * Checks whether a state key is in the closed set.
+     *
+     * @param key Key identifying the configuration of the state.
+     * @return True if the key was already closed.
+     */
+    public boolean isClosed(long key) {
+        if (closedSize == 0) return false;
+        long mask = closed.capacity - 1;
+        long entry = key | USED;
+        for (long slot = (entry * 0x9E3779B97F4A7C15L) & mask; ; slot = (slot + 1) & mask) {
+            long current = closed.getLong(slot);
+            if (current == 0) return false;
+            if (current == entry) return true;
+        }
+    }
+
+    /**
+     * Adds a state key to the closed set.
+     *
+     * @param key Key identifying the configuration of the state.
+     * @return True if the key was added, false if it was already closed.
+     */
+    public boolean close(long key) {
+        if (2 * (closedSize + 1) > closed.capacity) {
+            rehash();
+        }
+        if (insert(closed, key | USED)) {
+            closedSize++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Inserts a marked key into an open addressing table using linear probing.
+     *
+     * @param table The table to insert into.
+     * @param entry The key with its USED bit set.
+     * @return True if the key was inserted, false if it was already present.
+     */
+    private static boolean insert(DirectArray table, long entry) {
+        long mask = table.capacity - 1;
+        long slot = (entry * 0x9E3779B97F4A7C15L) & mask;
+        while (true) {
+            long current = table.getLong(slot);
+            if (current == 0) {
+                table.putLong(slot, entry);
+                return true;
+            }
+            if (current == entry) return false;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Doubles the capacity of the closed set and reinserts every key.
+     */
+    private void rehash() {
+        DirectArray old = closed;
+        closed = new DirectArray(8, Math.max(DirectArray.INITIAL_ELEMENTS, 2 * old.capacity));
+        updatePeakBytes(old.bytes());
+        for (long i = 0; i < old.capacity; i++) {
+            long entry = old.getLong(i);
+            if (entry != 0) insert(closed, entry);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+import java.util.*;
+
+/**
+ * Performs the same A* search as Search, but keeps every node in a NodeStore instead of creating
+ * a State object per node. States are encoded by a StateEncoder as a bit mask of the family members
+ * on the right bank plus the lantern position, so heap usage stays flat as the search grows.
+ * Only the path of the solution is turned back into State objects.
+ */
+public class OffHeapSearch extends Search {
+
+    private StateEncoder encoder;
+    private int[] times;
+    private long allMembers;
+    private long peakStoreBytes = 0;
+
+    /**
+     * Performs A* search on the state space using off-heap node records.
+     *
+     * @param initialState The initial state of the problem.
+     * @param heuristic    The heuristic to be used in the search.
+     * @return The final state representing the solution.
+     */
+    @Override
+    public State AStarSearch(State initialState, int heuristic) {
+        long startTime = System.currentTimeMillis();
+
+        // Check if the initial state is already the final state.
+        if (initialState.isFinal()) return initialState;
+
+        encoder = new StateEncoder(initialState);
+        times = new int[encoder.size()];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = encoder.getTime(i);
+        }
+        allMembers = encoder.getAllMembers();
+        NodeStore store = new NodeStore();
+
+        // Put the initial state in the frontier.
+        long initialKey = encoder.keyOf(initialState);
+        int g = initialState.getTotalTime();
+        int depth = initialState.getMoves();
+        store.push(store.add(initialKey, g, g + evaluate(initialKey, depth, heuristic), -1, 0, depth));
+
+        // Check for an empty frontier.
+        while (store.frontierSize() > 0) {
+            // Stop if the thread running the search was interrupted.
+            if (Thread.currentThread().isInterrupted()) break;
+
+            // Get the best node out of the frontier.
+            int current = store.pop();
+            long key = store.getKey(current);
+
+            // If the current node is the final state, rebuild its path and return it.
+            if ((key & allMembers) == 0) {
+                State finalState = rebuildPath(store, current, initialState, heuristic);
+                peakStoreBytes = store.getPeakBytes();
+                long endTime = System.currentTimeMillis();
+                if (verbose) {
+                    System.out.println("Time Elapsed: " + finalState.getTotalTime() +
+                            " Nodes Expanded: " + nodeExpandCount +
+                            " Nodes explored: " + nodeExploreCount +
+                            " Search time: " + (double) (endTime - startTime) / 1000 + " sec");
+                    printPathFollowed(finalState);
+                }
+                return finalState;
+            }
+
+            // If the current node is not in the closed set, add it and expand its children.
+            if (store.close(key)) {
+                expand(store, current, heuristic);
+                peakFrontierSize = Math.max(peakFrontierSize, store.frontierSize());
+                nodeExpandCount++;
+            }
+            nodeExploreCount++;
+        }
+
+        // Reset node counts in case no solution is found.
+        peakStoreBytes = store.getPeakBytes();
+        nodeExpandCount = 0;
+        nodeExploreCount = 0;
+        return null;
+    }
+
+    /**
+     * Adds to the store and the frontier every node reachable from the given node by one crossing,
+     * with one or two family members taking the lantern to the other bank.
+     *
+     * @param store     The node store.
+     * @param current   Index of the node to expand.
+     * @param heuristic The heuristic to be used in the search.
+     */
+    private void expand(NodeStore store, int current, int heuristic) {
+        long key = store.getKey(current);
+        boolean lanternOnRight = (key & StateEncoder.LANTERN_ON_RIGHT) != 0;
+        long rightBank = key & allMembers;
+        long bank = lanternOnRight ? rightBank : allMembers & ~rightBank;
+        int g = store.getG(current);
+        int depth = store.getDepth(current) + 1;
+
+        for (int i = 0; i < times.length; i++) {
+            if ((bank & (1L << i)) == 0) continue;
+            for (int j = i; j < times.length; j++) {
+                if ((bank & (1L << j)) == 0) continue;
+
+                long moved = (1L << i) | (1L << j);
+                long childKey = (lanternOnRight ? rightBank & ~moved : rightBank | moved)
+                        | (lanternOnRight ? 0 : StateEncoder.LANTERN_ON_RIGHT);
+
+                // Children already expanded would be skipped when popped, so keep them out of the frontier
+                if (store.isClosed(childKey)) continue;
+
+                int childG = g + Math.max(times[i], times[j]);
+                int childF = childG + evaluate(childKey, depth, heuristic);
+                store.push(store.add(childKey, childG, childF, current, (i << 8) | j, depth));
+            }
+        }
+    }
+
+    /**
+     * Evaluates the heuristic of an encoded state, matching the heuristics of the State class.
+     *
+     * @param key       Key of the state.
+     * @param depth     Number of moves made to reach the state.
+     * @param heuristic Heuristic type.
+     * @return The heuristic value h of the state.
+     */
+    private int evaluate(long key, int depth, int heuristic) {
+        long rightBank = key & allMembers;
+        switch (heuristic) {
+            case 1:
+                return Long.bitCount(rightBank);
+            case 2:
+                return 2 * times.length - 3 - depth;
+            case 3:
+                return noBridgeLimit(rightBank, (key & StateEncoder.LANTERN_ON_RIGHT) != 0);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Heuristic without a bridge limit, computed on the bit mask of the right bank.
+     *
+     * @param rightBank      Bit mask of the family members on the right bank.
+     * @param lanternOnRight True if the lantern is on the right bank.
+     * @return The heuristic value h of the state.
+     */
+    private int noBridgeLimit(long rightBank, boolean lanternOnRight) {
+        int maxTime = 0;
+        int minTime = 0;
+        boolean firstLeft = true;
+
+        for (int i = 0; i < times.length; i++) {
+            if ((rightBank & (1L << i)) != 0) {
+                maxTime = Math.max(maxTime, times[i]);
+            } else if (firstLeft || times[i] < minTime) {
+                minTime = times[i];
+                firstLeft = false;
+            }
+        }
+
+        int h = 2 * maxTime;
+        if (!lanternOnRight) {
+            h = h / 2 + minTime;
+        }
+        if (Long.bitCount(rightBank) <= 2) {
+            h = maxTime;
+        }
+        return h;
+    }
+
+    /**
+     * Returns the largest number of bytes held by the off-heap buffers of the last search.
+     *
+     * @return The peak size of the node store in bytes.
+     */
+    public long getPeakStoreBytes() {
+        return peakStoreBytes;
+    }
+
+    /**
+     * Listing every optimal schedule needs the father chains of State objects, which this engine
+     * does not keep.
+     *
+     * @throws UnsupportedOperationException Always, use Search for this mode.
+     */
+    @Override
+    public SolutionDag AStarSearchAll(State initialState, int heuristic) {
+        throw new UnsupportedOperationException("Off-heap search cannot list all optimal schedules, use Search instead");
+    }
+
+    /**
+     * Turns the path of a node back into State objects by replaying its moves from the initial state.
+     *
+     * @param store        The node store.
+     * @param goal         Index of the final node.
+     * @param initialState The initial state of the problem.
+     * @param heuristic    The heuristic to be used in the search.
+     * @return The final state, with its father chain leading to the initial state.
+     */
+    private State rebuildPath(NodeStore store, int goal, State initialState, int heuristic) {
+        Stack<Integer> moves = new Stack<Integer>();
+        for (int node = goal; store.getParent(node) >= 0; node = store.getParent(node)) {
+            moves.push(store.getMove(node));
+        }
+
+        State state = initialState;
+        while (!moves.isEmpty()) {
+            // A move names the one or two family members who crossed with the lantern
+            int move = moves.pop();
+            long moved = (1L << (move >>> 8)) | (1L << (move & 0xFF));
+            long key = encoder.keyOf(state) ^ moved ^ StateEncoder.LANTERN_ON_RIGHT;
+            for (State child : state.getChildren(heuristic)) {
+                if (encoder.keyOf(child) == key) {
+                    state = child;
+                    break;
+                }
+            }
+        }
+        return state;
+    }
+}
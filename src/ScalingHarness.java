@@ -0,0 +1,421 @@
+import java.io.*;
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how the search engines and heuristics scale with the number of family members and the
+ * distribution of their crossing times, and checks the results against a stored baseline.
+ *
+ * Usage: java ScalingHarness [--sizes 3,4,5] [--distributions uniform,skewed] [--engines state,offheap]
+ *        [--heuristics 1,2,3] [--seed 42] [--timeout 10] [--repeats 3]
+ *        [--out scaling.csv] [--baseline baseline.csv]
+ *        [--threshold 0.25] [--min-latency 25] [--write-baseline]
+ *
+ * A missing baseline file is created from the results of the sweep.
+ * The program exits with status 1 when a run expands more nodes or takes longer than its baseline
+ * by more than the threshold, when its cost differs from the baseline, when a run that finished in
+ * the baseline no longer finishes, or when engines disagree on the cost of the same instance.
+ *
+ * heapBytes is the peak growth of the heap in use during a run over what was in use when it started,
+ * sampled every millisecond. directBytes is the peak size of the off-heap node store, and is 0 for
+ * the engines that keep their nodes on the heap.
+ */
+public class ScalingHarness {
+
+    // Supported search engines
+    public static final String[] ENGINES = {"state", "offheap", "all"};
+
+    private static final String HEADER = "engine,heuristic,distribution,n,seed,status,cost,"
+            + "expanded,peakFrontier,heapBytes,directBytes,latencyMs";
+
+    /**
+     * The measurements of one search run, stored as one CSV line.
+     */
+    private static class Result {
+        private String engine;
+        private int heuristic;
+        private String distribution;
+        private int n;
+        private long seed;
+        private String status;
+        private int cost = -1;
+        private int expanded = -1;
+        private int peakFrontier = -1;
+        private long heapBytes = -1;
+        private long directBytes = -1;
+        private double latencyMs = -1;
+
+        private Result(String engine, int heuristic, String distribution, int n, long seed) {
+            this.engine = engine;
+            this.heuristic = heuristic;
+            this.distribution = distribution;
+            this.n = n;
+            this.seed = seed;
+        }
+
+        private String key() {
+            return engine + "," + heuristic + "," + distribution + "," + n + "," + seed;
+        }
+
+        private String toCsv() {
+            return key() + "," + status + "," + cost + "," + expanded + "," + peakFrontier + ","
+                    + heapBytes + "," + directBytes + "," + String.format(Locale.ROOT, "%.3f", latencyMs);
+        }
+
+        private static Result fromCsv(String line) {
+            String[] fields = line.split(",");
+            Result result = new Result(fields[0], Integer.parseInt(fields[1]), fields[2],
+                    Integer.parseInt(fields[3]), Long.parseLong(fields[4]));
+            result.status = fields[5];
+            result.cost = Integer.parseInt(fields[6]);
+            result.expanded = Integer.parseInt(fields[7]);
+            result.peakFrontier = Integer.parseInt(fields[8]);
+            result.heapBytes = Long.parseLong(fields[9]);
+            result.directBytes = Long.parseLong(fields[10]);
+            result.latencyMs = Double.parseDouble(fields[11]);
+            return result;
+        }
+    }
+
+    // Harness options
+    private int[] sizes = {3, 4, 5, 6, 7};
+    private String[] distributions = InstanceGenerator.DISTRIBUTIONS;
+    private String[] engines = ENGINES;
+    private int[] heuristics = {1, 2, 3};
+    private long seed = 42;
+    private long timeoutSeconds = 10;
+    private int repeats = 3;
+    private String out = "scaling.csv";
+    private String baseline = null;
+    private double threshold = 0.25;
+    private double minLatencyMs = 25;
+    private boolean writeBaseline = false;
+
+    public static void main(String args[]) throws IOException {
+        ScalingHarness harness = new ScalingHarness();
+        harness.parseArguments(args);
+
+        List<Result> results = harness.sweep();
+        harness.write(results, harness.out);
+        System.out.println("Wrote " + results.size() + " runs to " + harness.out);
+
+        List<String> mismatches = harness.checkAgreement(results);
+        for (String mismatch : mismatches) {
+            System.out.println("MISMATCH " + mismatch);
+        }
+
+        List<String> regressions = new ArrayList<String>();
+        if (harness.baseline != null) {
+            if (harness.writeBaseline || !new File(harness.baseline).exists()) {
+                harness.write(results, harness.baseline);
+                System.out.println("Wrote baseline " + harness.baseline);
+            } else {
+                regressions = harness.compare(results, harness.read(harness.baseline));
+                for (String regression : regressions) {
+                    System.out.println("REGRESSION " + regression);
+                }
+                if (regressions.isEmpty()) {
+                    System.out.println("No regressions against " + harness.baseline);
+                }
+            }
+        }
+
+        if (!mismatches.isEmpty() || !regressions.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the command line options.
+     *
+     * @param args Command line arguments.
+     */
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = parseInts(args[++i]);
+                    break;
+                case "--distributions":
+                    distributions = args[++i].split(",");
+                    break;
+                case "--engines":
+                    engines = args[++i].split(",");
+                    break;
+                case "--heuristics":
+                    heuristics = parseInts(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--timeout":
+                    timeoutSeconds = Long.parseLong(args[++i]);
+                    break;
+                case "--repeats":
+                    repeats = Math.max(1, Integer.parseInt(args[++i]));
+                    break;
+                case "--out":
+                    out = args[++i];
+                    break;
+                case "--baseline":
+                    baseline = args[++i];
+                    break;
+                case "--threshold":
+                    threshold = Double.parseDouble(args[++i]);
+                    break;
+                case "--min-latency":
+                    minLatencyMs = Double.parseDouble(args[++i]);
+                    break;
+                case "--write-baseline":
+                    writeBaseline = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    private static int[] parseInts(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    /**
+     * Runs every engine and heuristic on every instance, in order of increasing family size.
+     * Once a combination times out on one size, the larger sizes are skipped.
+     *
+     * @return The results of every run.
+     */
+    private List<Result> sweep() {
+        InstanceGenerator generator = new InstanceGenerator(seed);
+        ArrayList<Result> results = new ArrayList<Result>();
+
+        for (String engine : engines) {
+            for (int heuristic : heuristics) {
+                for (String distribution : distributions) {
+                    boolean timedOut = false;
+                    for (int n : sizes) {
+                        Result result;
+                        if (timedOut) {
+                            result = new Result(engine, heuristic, distribution, n, generator.instanceSeed(n, distribution));
+                            result.status = "skipped";
+                        } else {
+                            result = run(generator, engine, heuristic, distribution, n);
+                            timedOut = !result.status.equals("ok");
+                        }
+                        System.out.println(result.toCsv());
+                        results.add(result);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Runs one search several times and keeps the fastest run, since the first runs also pay for
+     * class loading and JIT compilation.
+     *
+     * @param generator    The instance generator.
+     * @param engine       The search engine to use.
+     * @param heuristic    The heuristic to use.
+     * @param distribution Distribution of the crossing times.
+     * @param n            Number of family members.
+     * @return The result of the fastest run, or of the first run that did not finish.
+     */
+    private Result run(InstanceGenerator generator, String engine, int heuristic, String distribution, int n) {
+        Result best = null;
+        for (int i = 0; i < repeats; i++) {
+            Result result = measure(generator, engine, heuristic, distribution, n);
+            if (!result.status.equals("ok")) return result;
+            if (best == null || result.latencyMs < best.latencyMs) best = result;
+        }
+        return best;
+    }
+
+    /**
+     * Runs one search in its own thread and measures it, interrupting it after the timeout.
+     *
+     * @param generator    The instance generator.
+     * @param engine       The search engine to use.
+     * @param heuristic    The heuristic to use.
+     * @param distribution Distribution of the crossing times.
+     * @param n            Number of family members.
+     * @return The result of the run.
+     */
+    private Result measure(InstanceGenerator generator, String engine, int heuristic, String distribution, int n) {
+        long instanceSeed = generator.instanceSeed(n, distribution);
+        State initialState = new State(generator.generate(n, distribution), heuristic);
+        Search searcher = engine.equals("offheap") ? new OffHeapSearch() : new Search();
+        searcher.setVerbose(false);
+
+        // The search fills in its own result, so an interrupted search cannot overwrite a timeout
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Result> future = executor.submit(() -> {
+            Result result = new Result(engine, heuristic, distribution, n, instanceSeed);
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            System.gc();
+            long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+            // Sample the heap in use while the search runs, since the peaks of separate pools add up to more
+            AtomicLong heapPeak = new AtomicLong(heapBefore);
+            ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+            sampler.scheduleAtFixedRate(() -> heapPeak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                    0, 1, TimeUnit.MILLISECONDS);
+            long startTime = System.nanoTime();
+
+            try {
+                if (engine.equals("all")) {
+                    result.cost = searcher.AStarSearchAll(initialState, heuristic).getOptimalCost();
+                } else {
+                    State finalState = searcher.AStarSearch(initialState, heuristic);
+                    result.cost = finalState == null ? -1 : finalState.getTotalTime();
+                }
+                result.latencyMs = (System.nanoTime() - startTime) / 1e6;
+                heapPeak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            } finally {
+                sampler.shutdownNow();
+            }
+
+            result.heapBytes = heapPeak.get() - heapBefore;
+            result.directBytes = searcher instanceof OffHeapSearch ? ((OffHeapSearch) searcher).getPeakStoreBytes() : 0;
+            result.expanded = searcher.getNodeExpandCount();
+            result.peakFrontier = searcher.getPeakFrontierSize();
+            result.status = result.cost < 0 ? "failed" : "ok";
+            return result;
+        });
+
+        Result result;
+        try {
+            result = future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            result = new Result(engine, heuristic, distribution, n, instanceSeed);
+            result.status = "timeout";
+        } catch (InterruptedException | ExecutionException e) {
+            result = new Result(engine, heuristic, distribution, n, instanceSeed);
+            result.status = "failed";
+        } finally {
+            executor.shutdownNow();
+            try {
+                // Let an interrupted search stop before the next run is measured
+                executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compares the results with the baseline.
+     * Latency only counts as a regression when it also grew by more than the minimum latency,
+     * so that noise on very short runs is ignored.
+     *
+     * @param results  The results of this sweep.
+     * @param baseline The baseline results, keyed by run.
+     * @return A description of every regression found.
+     */
+    private List<String> compare(List<Result> results, Map<String, Result> baseline) {
+        ArrayList<String> regressions = new ArrayList<String>();
+        for (Result result : results) {
+            Result base = baseline.get(result.key());
+            if (base == null || !base.status.equals("ok")) continue;
+
+            if (!result.status.equals("ok")) {
+                regressions.add(result.key() + " status " + result.status + " (baseline ok)");
+                continue;
+            }
+            if (result.cost != base.cost) {
+                regressions.add(result.key() + " cost " + result.cost + " (baseline " + base.cost + ")");
+            }
+            if (result.expanded > base.expanded * (1 + threshold)) {
+                regressions.add(result.key() + " expanded " + result.expanded + " (baseline " + base.expanded + ")");
+            }
+            if (result.latencyMs > base.latencyMs * (1 + threshold)
+                    && result.latencyMs - base.latencyMs > minLatencyMs) {
+                regressions.add(result.key() + String.format(Locale.ROOT, " latency %.3f ms (baseline %.3f ms)",
+                        result.latencyMs, base.latencyMs));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Checks that the engines agree on the cost of each instance.
+     * The all engine is exhaustive, so every heuristic must give it the same cost and no engine may
+     * find anything cheaper. The state and offheap engines run the same A* search, so with the same
+     * heuristic they must return the same cost, even when the heuristic makes it suboptimal.
+     *
+     * @param results The results of this sweep.
+     * @return A description of every disagreement found.
+     */
+    private List<String> checkAgreement(List<Result> results) {
+        ArrayList<String> mismatches = new ArrayList<String>();
+        HashMap<String, Result> exhaustive = new HashMap<String, Result>();
+        HashMap<String, Result> aStar = new HashMap<String, Result>();
+
+        for (Result result : results) {
+            if (!result.status.equals("ok") || !result.engine.equals("all")) continue;
+            String instance = result.distribution + "," + result.n + "," + result.seed;
+            Result other = exhaustive.putIfAbsent(instance, result);
+            if (other != null && other.cost != result.cost) {
+                mismatches.add(result.key() + " cost " + result.cost + " differs from " + other.key() + " cost " + other.cost);
+            }
+        }
+
+        for (Result result : results) {
+            if (!result.status.equals("ok") || result.engine.equals("all")) continue;
+            String instance = result.distribution + "," + result.n + "," + result.seed;
+            Result optimal = exhaustive.get(instance);
+            if (optimal != null && result.cost < optimal.cost) {
+                mismatches.add(result.key() + " cost " + result.cost + " is below the optimal cost " + optimal.cost);
+            }
+            Result other = aStar.putIfAbsent(result.heuristic + "," + instance, result);
+            if (other != null && other.cost != result.cost) {
+                mismatches.add(result.key() + " cost " + result.cost + " differs from " + other.key() + " cost " + other.cost);
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Writes results to a CSV file.
+     *
+     * @param results The results to write.
+     * @param path    Path of the CSV file.
+     */
+    private void write(List<Result> results, String path) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(path))) {
+            writer.println(HEADER);
+            for (Result result : results) {
+                writer.println(result.toCsv());
+            }
+        }
+    }
+
+    /**
+     * Reads results from a CSV file.
+     *
+     * @param path Path of the CSV file.
+     * @return The results, keyed by run.
+     */
+    private Map<String, Result> read(String path) throws IOException {
+        HashMap<String, Result> results = new HashMap<String, Result>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                Result result = Result.fromCsv(line);
+                results.put(result.key(), result);
+            }
+        }
+        return results;
+    }
+}
@@ -7,8 +7,10 @@ public class Search {
 
     public boolean lanternOnLeft = false;
     private ArrayList<State> frontier = new ArrayList<State>();
-    private int nodeExpandCount = 0;
-    private int nodeExploreCount = 0;
+    protected int nodeExpandCount = 0;
+    protected int nodeExploreCount = 0;
+    protected int peakFrontierSize = 0;
+    protected boolean verbose = true;
 
     /**
      * Performs A* search on the state space to find a solution to the bridge crossing problem.
@@ -29,17 +31,22 @@ public class Search {
 
         // Check for an empty frontier.
         while (this.frontier.size() > 0) {
+            // Stop if the thread running the search was interrupted.
+            if (Thread.currentThread().isInterrupted()) break;
+
             // Get the first node out of the frontier.
             State currentState = this.frontier.remove(0);
 
             // If the current state is the final state, return it.
             if (currentState.isFinal()) {
                 long endTime = System.currentTimeMillis();
-                System.out.println("Time Elapsed: " + currentState.getTotalTime() +
-                        " Nodes Expanded: " + nodeExpandCount +
-                        " Nodes explored: " + nodeExploreCount +
-                        " Search time: " + (double) (endTime - startTime) / 1000 + " sec");
-                printPathFollowed(currentState);
+                if (verbose) {
+                    System.out.println("Time Elapsed: " + currentState.getTotalTime() +
+                            " Nodes Expanded: " + nodeExpandCount +
+                            " Nodes explored: " + nodeExploreCount +
+                            " Search time: " + (double) (endTime - startTime) / 1000 + " sec");
+                    printPathFollowed(currentState);
+                }
                 return currentState;
             }
 
@@ -47,6 +54,7 @@ public class Search {
             if (!closedSet.contains(currentState)) {
                 closedSet.add(currentState);
                 this.frontier.addAll(currentState.getChildren(heuristic));
+                peakFrontierSize = Math.max(peakFrontierSize, this.frontier.size());
                 nodeExpandCount++;
             }
 
@@ -61,12 +69,102 @@ public class Search {
         return null;
     }
 
+    /**
+     * Performs A* search that keeps going after the first solution until the frontier is empty,
+     * recording every optimal route in a shared graph of states.
+     * States costing more than the cheapest solution found so far are pruned on their cost (g) alone,
+     * never on the evaluation function, so the graph holds every optimal schedule even with a
+     * heuristic that overestimates the remaining time.
+     *
+     * @param initialState The initial state of the problem.
+     * @param heuristic    The heuristic to be used in the search.
+     * @return The graph of all optimal schedules, with no goal if no solution was found.
+     */
+    public SolutionDag AStarSearchAll(State initialState, int heuristic) {
+        long startTime = System.currentTimeMillis();
+        SolutionDag dag = new SolutionDag(initialState);
+        int optimalCost = -1;
+
+        // Put the initial state in the frontier.
+        this.frontier.add(initialState);
+
+        while (this.frontier.size() > 0) {
+            // Stop if the thread running the search was interrupted.
+            if (Thread.currentThread().isInterrupted()) break;
+
+            State currentState = this.frontier.remove(0);
+
+            // States more expensive than the best solution found so far cannot be on an optimal schedule.
+            if (optimalCost >= 0 && currentState.getTotalTime() > optimalCost) {
+                nodeExploreCount++;
+                continue;
+            }
+
+            boolean expand = dag.record(currentState);
+
+            // Final states only add edges to the goal, they are never expanded.
+            if (currentState.isFinal()) {
+                if (optimalCost < 0 || currentState.getTotalTime() < optimalCost) {
+                    optimalCost = currentState.getTotalTime();
+                    dag.setGoal(currentState);
+                }
+            } else if (expand) {
+                for (State child : currentState.getChildren(heuristic)) {
+                    if (optimalCost < 0 || child.getTotalTime() <= optimalCost) {
+                        this.frontier.add(child);
+                    }
+                }
+                peakFrontierSize = Math.max(peakFrontierSize, this.frontier.size());
+                nodeExpandCount++;
+            }
+
+            // Sort the frontier based on the heuristic score to get the best state first.
+            Collections.sort(this.frontier);
+            nodeExploreCount++;
+        }
+        this.frontier.clear();
+
+        long endTime = System.currentTimeMillis();
+        if (verbose) {
+            System.out.println("Time Elapsed: " + dag.getOptimalCost() +
+                    " Optimal schedules: " + dag.countSolutions() +
+                    " Graph size: " + dag.size() +
+                    " Nodes Expanded: " + nodeExpandCount +
+                    " Nodes explored: " + nodeExploreCount +
+                    " Search time: " + (double) (endTime - startTime) / 1000 + " sec");
+        }
+        return dag;
+    }
+
+    /**
+     * Enables or disables printing of the search statistics and the path followed.
+     *
+     * @param verbose True to print the results of the search.
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    // Getter methods for the statistics of the last search
+
+    public int getNodeExpandCount() {
+        return nodeExpandCount;
+    }
+
+    public int getNodeExploreCount() {
+        return nodeExploreCount;
+    }
+
+    public int getPeakFrontierSize() {
+        return peakFrontierSize;
+    }
+
     /**
      * Prints the path followed to reach the final state.
      *
      * @param finalState The final state representing the solution.
      */
-    private void printPathFollowed(State finalState) {
+    public void printPathFollowed(State finalState) {
         Stack<String> moves = new Stack<String>();
         moves.push("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
         moves.push(finalState.toString());
@@ -0,0 +1,276 @@
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Holds every optimal schedule found by the search as a directed acyclic graph of states.
+ * Each distinct configuration is stored once, together with all the parent edges that reach it
+ * at its best cost, so memory grows with the size of the graph and not with the number of schedules.
+ */
+public class SolutionDag implements Iterable<State> {
+
+    /**
+     * A configuration of the problem reached at its best known cost.
+     */
+    private static class Node {
+        private final State state;
+        private final long key;
+        private final int cost;
+        private boolean expanded = false;
+        private final LinkedHashMap<Long, Edge> parents = new LinkedHashMap<Long, Edge>();
+
+        private Node(State state, long key) {
+            this.state = state;
+            this.key = key;
+            this.cost = state.getTotalTime();
+        }
+    }
+
+    /**
+     * A move leading from a parent configuration to a child configuration.
+     */
+    private static class Edge {
+        private final Node parent;
+        private final String moveDescription;
+
+        private Edge(Node parent, String moveDescription) {
+            this.parent = parent;
+            this.moveDescription = moveDescription;
+        }
+    }
+
+    // Nodes keyed by the exact configuration of their state
+    private StateEncoder encoder;
+    private HashMap<Long, Node> nodes = new HashMap<Long, Node>();
+    private Node root;
+    private Node goal;
+    private BigInteger solutionCount;
+
+    /**
+     * Constructor for creating a graph rooted at the initial state of the search.
+     *
+     * @param initialState The initial state of the problem.
+     */
+    public SolutionDag(State initialState) {
+        encoder = new StateEncoder(initialState);
+        root = new Node(initialState, encoder.keyOf(initialState));
+        nodes.put(root.key, root);
+    }
+
+    /**
+     * Records a state popped from the frontier of the search.
+     * The state's configuration is added to the graph if it is new or reached at a lower cost,
+     * and the move that produced it is kept as a parent edge if it is reached at its best cost.
+     *
+     * @param state The state popped from the frontier.
+     * @return True if the state should be expanded, false if its configuration was already expanded
+     *         or it was reached at a higher cost.
+     */
+    public boolean record(State state) {
+        long key = encoder.keyOf(state);
+        Node node = nodes.get(key);
+
+        // A cheaper route to the configuration replaces every edge recorded so far
+        if (node == null || state.getTotalTime() < node.cost) {
+            node = new Node(state, key);
+            nodes.put(key, node);
+        } else if (state.getTotalTime() > node.cost) {
+            return false;
+        }
+
+        State father = state.getFather();
+        if (father != null) {
+            Node parent = nodes.get(encoder.keyOf(father));
+            if (parent != null && parent.state == father) {
+                node.parents.put(parent.key, new Edge(parent, state.getMoveDescription()));
+            }
+        }
+
+        if (node.expanded || node.state != state) {
+            return false;
+        }
+        node.expanded = true;
+        // The graph keeps its own edges, so the father chain of the stored state is no longer needed
+        state.setFather(null);
+        return true;
+    }
+
+    /**
+     * Marks the configuration of the given state as the goal of every schedule in the graph.
+     *
+     * @param finalState The cheapest final state recorded so far.
+     */
+    public void setGoal(State finalState) {
+        goal = nodes.get(encoder.keyOf(finalState));
+        solutionCount = null;
+    }
+
+    /**
+     * Returns the cost of every optimal schedule.
+     *
+     * @return The total time of an optimal schedule, or -1 if no goal was reached.
+     */
+    public int getOptimalCost() {
+        return goal == null ? -1 : goal.cost;
+    }
+
+    /**
+     * Returns the number of configurations stored in the graph.
+     *
+     * @return The number of nodes in the graph.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Counts the optimal schedules by dynamic programming over the graph, processing the nodes
+     * in order of increasing cost so every parent is counted before its children.
+     *
+     * @return The number of distinct optimal schedules.
+     */
+    public BigInteger countSolutions() {
+        if (solutionCount != null) return solutionCount;
+        if (goal == null) return BigInteger.ZERO;
+
+        ArrayList<Node> ordered = new ArrayList<Node>(nodes.values());
+        ordered.sort((a, b) -> Integer.compare(a.cost, b.cost));
+
+        HashMap<Node, BigInteger> counts = new HashMap<Node, BigInteger>();
+        counts.put(root, BigInteger.ONE);
+        for (Node node : ordered) {
+            if (node == root) continue;
+            BigInteger count = BigInteger.ZERO;
+            for (Edge edge : node.parents.values()) {
+                BigInteger parentCount = counts.get(edge.parent);
+                if (parentCount != null && isOptimalEdge(edge, node)) {
+                    count = count.add(parentCount);
+                }
+            }
+            counts.put(node, count);
+        }
+
+        solutionCount = counts.get(goal);
+        return solutionCount;
+    }
+
+    /**
+     * Checks whether an edge still lies on a cheapest route to its child. Edges recorded before a
+     * parent configuration was reached more cheaply point at a node that is no longer in the graph.
+     *
+     * @param edge  The edge to check.
+     * @param child The node the edge leads to.
+     * @return True if the edge belongs to an optimal schedule.
+     */
+    private boolean isOptimalEdge(Edge edge, Node child) {
+        return nodes.get(edge.parent.key) == edge.parent && edge.parent.cost < child.cost;
+    }
+
+    /**
+     * Returns an iterator that builds the optimal schedules one at a time by walking the graph
+     * backwards from the goal. Only the schedule being produced is materialised.
+     *
+     * @return An iterator over the final states of every optimal schedule, each with its own father chain.
+     */
+    @Override
+    public Iterator<State> iterator() {
+        return new ScheduleIterator();
+    }
+
+    /**
+     * Depth-first walk over the parent edges, from the goal back to the root.
+     */
+    private class ScheduleIterator implements Iterator<State> {
+
+        private ArrayList<Node> pathNodes = new ArrayList<Node>();
+        private ArrayList<Iterator<Edge>> pathEdges = new ArrayList<Iterator<Edge>>();
+        private ArrayList<Edge> chosen = new ArrayList<Edge>();
+        private State next;
+
+        private ScheduleIterator() {
+            if (goal != null) {
+                push(goal);
+                next = advance();
+            }
+        }
+
+        private void push(Node node) {
+            pathNodes.add(node);
+            pathEdges.add(node.parents.values().iterator());
+        }
+
+        /**
+         * Moves the walk forward until it reaches the root again, backtracking over dead ends.
+         *
+         * @return The final state of the next schedule, or null once every schedule was produced.
+         */
+        private State advance() {
+            if (goal == root) {
+                return pathNodes.isEmpty() ? null : build(pathNodes.remove(0));
+            }
+            while (!pathNodes.isEmpty()) {
+                int top = pathNodes.size() - 1;
+                Node node = pathNodes.get(top);
+                Iterator<Edge> edges = pathEdges.get(top);
+                Edge edge = null;
+                while (edges.hasNext()) {
+                    Edge candidate = edges.next();
+                    if (isOptimalEdge(candidate, node)) {
+                        edge = candidate;
+                        break;
+                    }
+                }
+
+                if (edge == null) {
+                    // Every edge of this node was used, go back to its child
+                    pathNodes.remove(top);
+                    pathEdges.remove(top);
+                    if (!chosen.isEmpty()) chosen.remove(chosen.size() - 1);
+                    continue;
+                }
+
+                chosen.add(edge);
+                if (edge.parent == root) {
+                    State schedule = build(null);
+                    chosen.remove(chosen.size() - 1);
+                    return schedule;
+                }
+                push(edge.parent);
+            }
+            return null;
+        }
+
+        /**
+         * Creates fresh copies of the states along the current path, linked by their father pointers.
+         *
+         * @param single A lone node to copy when the initial state is already final, otherwise null.
+         * @return The final state of the schedule.
+         */
+        private State build(Node single) {
+            if (single != null) return new State(single.state);
+
+            State father = new State(root.state);
+            for (int i = chosen.size() - 1; i >= 0; i--) {
+                Edge edge = chosen.get(i);
+                Node child = (i == 0) ? goal : chosen.get(i - 1).parent;
+                State state = new State(child.state);
+                state.setMoveDescription(edge.moveDescription);
+                state.setFather(father);
+                father = state;
+            }
+            return father;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public State next() {
+            if (next == null) throw new NoSuchElementException();
+            State current = next;
+            next = advance();
+            return current;
+        }
+    }
+}
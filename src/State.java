@@ -101,6 +101,10 @@ public class State implements Comparable<State> {
 		moveDescription = description;
 	}
 
+    public String getMoveDescription() {
+        return moveDescription;
+    }
+
     public ArrayList<FamilyMember> getLeftBank() {
         return this.leftBank;
     }
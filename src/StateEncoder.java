@@ -0,0 +1,66 @@
+import java.util.*;
+
+/**
+ * Encodes the configuration of a state (who is on the right bank and where the lantern is) as an
+ * exact long key. Each family member is given one bit, in order of their IDs, so two states share
+ * a key only if they have the same configuration.
+ */
+public class StateEncoder {
+
+    // Bit marking the lantern on the right bank in a state key
+    public static final long LANTERN_ON_RIGHT = 1L << 62;
+    public static final int MAX_FAMILY_MEMBERS = 62;
+
+    private int[] times;
+    private HashMap<Integer, Integer> bitOfId;
+    private long allMembers;
+
+    /**
+     * Constructor for creating an encoder for the family members of a problem.
+     *
+     * @param initialState The initial state of the problem.
+     */
+    public StateEncoder(State initialState) {
+        ArrayList<FamilyMember> members = new ArrayList<FamilyMember>(initialState.getFamilyMembers().values());
+        if (members.size() > MAX_FAMILY_MEMBERS) {
+            throw new IllegalArgumentException("State keys support at most " + MAX_FAMILY_MEMBERS + " family members");
+        }
+        Collections.sort(members);
+
+        times = new int[members.size()];
+        bitOfId = new HashMap<Integer, Integer>();
+        for (int i = 0; i < members.size(); i++) {
+            times[i] = members.get(i).getTime();
+            bitOfId.put(members.get(i).getId(), i);
+        }
+        allMembers = (1L << members.size()) - 1;
+    }
+
+    /**
+     * Encodes the configuration of a state as a key.
+     *
+     * @param state The state to encode.
+     * @return The bit mask of the right bank, with the lantern bit set if the lantern is on the right.
+     */
+    public long keyOf(State state) {
+        long key = state.getLantern() ? LANTERN_ON_RIGHT : 0;
+        for (FamilyMember fm : state.getRightBank()) {
+            key |= 1L << bitOfId.get(fm.getId());
+        }
+        return key;
+    }
+
+    // Getter methods for the encoding of the family members
+
+    public int size() {
+        return times.length;
+    }
+
+    public int getTime(int bit) {
+        return times[bit];
+    }
+
+    public long getAllMembers() {
+        return allMembers;
+    }
+}